@@ -7,75 +7,195 @@ import androidx.annotation.DrawableRes;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 
 public abstract class AbsSpinnerAdapter extends BaseAdapter implements InputTextFilter {
 
-    protected final List<String> dataSource;
-    protected final List<String> matchingItemData;
-    protected final int[] indexSet;
+    private static final int REFERENCE_SIZE = 4;
+
+    protected final List<SpinnerItem> dataSource;
+    // 筛选结果在dataSource中的下标，前matchingCount项有效
+    protected int[] indexSet;
+    protected int matchingCount;
+
+    // 关键字索引：所有条目的searchKeys展开成一维数组，keyOwner记录关键字所属的条目下标，前keyCount项有效
+    protected String[] keyIndex;
+    protected int[] keyOwner;
+    protected int keyCount;
 
 
     public AbsSpinnerAdapter(List<String> data) {
-        dataSource = data;
-        matchingItemData = new ArrayList<>();
-        indexSet = new int[dataSource.size()];
-        initDisplayData(data);
+        this(toItems(data));
     }
 
     public AbsSpinnerAdapter(String[] data) {
-        dataSource = new ArrayList<>();
-        dataSource.addAll(Arrays.asList(data));
-        matchingItemData = new ArrayList<>();
+        this(toItems(Arrays.asList(data)));
+    }
+
+    public AbsSpinnerAdapter(Collection<? extends SpinnerItem> items) {
+        dataSource = new ArrayList<>(items);
         indexSet = new int[dataSource.size()];
-        initDisplayData(dataSource);
+        initDisplayData();
     }
 
-    protected void initDisplayData(List<String> data) {
-        if (data != null && !data.isEmpty()) {
-            matchingItemData.addAll(data);
+    private static List<SpinnerItem> toItems(List<String> data) {
+        List<SpinnerItem> items = new ArrayList<>(data != null ? data.size() : 0);
+        if (data != null) {
+            for (int i = 0; i < data.size(); i++) {
+                items.add(new SimpleSpinnerItem(i, data.get(i)));
+            }
         }
+        return items;
+    }
+
+    protected void initDisplayData() {
+        int size = dataSource.size();
+        for (int i = 0; i < size; i++) {
+            indexSet[i] = i;
+        }
+        matchingCount = size;
+    }
+
+    protected void ensureKeyIndex() {
+        if (keyIndex != null) {
+            return;
+        }
+        int count = 0;
+        for (SpinnerItem item : dataSource) {
+            count += item.getSearchKeys().length;
+        }
+        keyIndex = new String[count];
+        keyOwner = new int[count];
+        keyCount = 0;
+        appendKeyIndex(0);
+    }
+
+    private void appendKeyIndex(int fromIndex) {
+        for (int i = fromIndex; i < dataSource.size(); i++) {
+            String[] keys = dataSource.get(i).getSearchKeys();
+            if (keyCount + keys.length > keyIndex.length) {
+                int capacity = Math.max(keyIndex.length * 2, keyCount + keys.length);
+                keyIndex = Arrays.copyOf(keyIndex, capacity);
+                keyOwner = Arrays.copyOf(keyOwner, capacity);
+            }
+            for (String key : keys) {
+                keyIndex[keyCount] = key;
+                keyOwner[keyCount] = i;
+                keyCount++;
+            }
+        }
+    }
+
+    /**
+     * 在数据源末尾追加条目，已建立的索引只追加新条目的关键字，
+     * 当前的筛选结果只需检查新条目，适用于分批加载大数据源
+     */
+    public void appendItems(Collection<? extends SpinnerItem> items) {
+        appendItems(items, true);
+    }
+
+    /**
+     * @param notifyChanged 为false时由调用方随后刷新，例如同一帧内紧接着重新筛选
+     */
+    void appendItems(Collection<? extends SpinnerItem> items, boolean notifyChanged) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        int fromIndex = dataSource.size();
+        dataSource.addAll(items);
+        if (indexSet.length < dataSource.size()) {
+            indexSet = Arrays.copyOf(indexSet, Math.max(indexSet.length * 2, dataSource.size()));
+        }
+        if (keyIndex != null) {
+            appendKeyIndex(fromIndex);
+        }
+        onItemsAppended(fromIndex);
+        if (notifyChanged) {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * 释放可在下次筛选时重建的筛选索引
+     */
+    public void trimMemory() {
+        keyIndex = null;
+        keyOwner = null;
+        keyCount = 0;
+    }
+
+    /**
+     * 适配器持有的数组的估算大小（字节）：数据源的引用数组、筛选结果和关键字索引。
+     * 条目对象本身不计算在内，通过loadItems加载时条目只由适配器持有
+     */
+    public long getRetainedSize() {
+        long size = (long) REFERENCE_SIZE * dataSource.size() + 4L * indexSet.length;
+        if (keyIndex != null) {
+            size += (long) (REFERENCE_SIZE + 4) * keyIndex.length;
+        }
+        return size;
     }
 
     @Override
     public int getCount() {
-        return  matchingItemData != null ? matchingItemData.size() : 0;
+        return matchingCount;
     }
 
+    /**
+     * 与之前的版本一样返回显示文本，AdapterView.getItemAtPosition 的调用方可以继续转换为String，
+     * 需要条目对象时使用 {@link #getSpinnerItem(int)}
+     */
     @Override
     public String getItem(int position) {
-        if (position >= 0 && position < matchingItemData.size()) {
-            return matchingItemData.get(position);
+        SpinnerItem item = getSpinnerItem(position);
+        return item != null ? item.getLabel() : "no data!";
+    }
+
+    public SpinnerItem getSpinnerItem(int position) {
+        if (position >= 0 && position < matchingCount) {
+            return dataSource.get(indexSet[position]);
         } else {
-            return "no data!";
+            return null;
         }
     }
 
     @Override
     public long getItemId(int position) {
-        return position;
+        SpinnerItem item = getSpinnerItem(position);
+        return item != null ? item.getItemId() : position;
     }
 
-    protected String getItemValue(int position) {
-        if (position >= 0 && position < dataSource.size()) {
-            return dataSource.get(indexSet[position]);
-        } else {
-            return "";
-        }
+    @Override
+    public boolean hasStableIds() {
+        return true;
     }
 
-    protected String getDataSourceItemValue(int index) {
-        if (index >= 0 && index < dataSource.size()) {
-            return dataSource.get(index);
-        } else {
-            return "";
+    public SpinnerItem getItemById(long id) {
+        for (SpinnerItem item : dataSource) {
+            if (item.getItemId() == id) {
+                return item;
+            }
         }
+        return null;
     }
 
+    protected String getItemValue(int position) {
+        SpinnerItem item = getSpinnerItem(position);
+        return item != null ? item.getLabel() : "";
+    }
+
+    /**
+     * 新条目已追加到dataSource的fromIndex之后，按当前的筛选条件更新筛选结果
+     */
+    abstract void onItemsAppended(int fromIndex);
+
     abstract void applyTextColor(@ColorInt int textColor);
     abstract void applyTextSize(float textSize);
     abstract void applyBackgroundSelector(@DrawableRes int backgroundSelector);
     abstract void applyFilterKeyColor(String filterColor);
     abstract void applyFilterKeyVisible(boolean isShowFilterKey);
+    abstract void applyRowHeight(int rowHeight);
+    abstract void applyRowHeightCache(RowHeightCache rowHeightCache);
 }
@@ -1,8 +1,10 @@
 package com.milylg.spinner;
 
 import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
@@ -12,6 +14,7 @@ import android.graphics.Rect;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.SystemClock;
 import android.text.Editable;
 import android.text.Spannable;
 import android.text.TextUtils;
@@ -19,10 +22,13 @@ import android.text.TextWatcher;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.WindowManager;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
+import android.widget.ListView;
 
 import androidx.annotation.AttrRes;
 import androidx.annotation.ColorInt;
@@ -31,11 +37,16 @@ import androidx.annotation.StyleableRes;
 import androidx.appcompat.content.res.AppCompatResources;
 import androidx.appcompat.widget.AppCompatEditText;
 import androidx.appcompat.widget.ListPopupWindow;
+import androidx.databinding.Bindable;
 import androidx.databinding.Observable;
 import androidx.databinding.PropertyChangeRegistry;
 
-import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * 可编辑的Spinner
@@ -67,11 +78,36 @@ public class EditableSpinner extends AppCompatEditText
     private static final int DEFAULT_MAX_LINE = 1;
     private static final int TOGGLE_POPUP_WINDOW_INTERVAL = 200;
     private static final int DRAWABLE_RIGHT = 2;
+    // 弹窗（PopupWindow及其背景）和单个已测量条目View的内存估算，只用于统计和比较。
+    // 在Robolectric（sdk 28，JDK 11）中实测：30个关闭的弹窗被释放后堆占用减少约1.5MB，每个约51KB；
+    // 400个测量并布局过的条目每个约4.1KB。真机上的数值会有差异
+    private static final int ESTIMATED_POPUP_SIZE = 50 * 1024;
+    private static final int ESTIMATED_ROW_SIZE = 4 * 1024;
 
     private AdapterView.OnItemClickListener itemClickExpandAction;
-    private WeakReference<ListPopupWindow> popupWindow;
+    private OnItemSelectedListener itemSelectedListener;
+    private SpinnerItem selectedItem;
+    private String committedValue;
+    private long committedItemId = AdapterView.INVALID_ROW_ID;
+    // 按ID选中时数据源中还没有该条目，待数据源设置或追加后再选中
+    private long pendingSelectedItemId = AdapterView.INVALID_ROW_ID;
+    // 正在由Spinner自身设置文本（选中条目或由代码赋值），不是用户的输入
+    private boolean settingTextInternally;
+    private ListPopupWindow popupWindow;
     private AbsSpinnerAdapter adapter;
+    private SpinnerItemLoader itemLoader;
     private long popupWindowHideTime;
+    private int shownItemCount;
+    private String pendingFilterKey;
+    private List<SpinnerItem> pendingItems;
+    private Runnable pendingItemsAppliedAction;
+    private boolean frameCallbackPosted;
+    private final Choreographer.FrameCallback frameCallback = this::applyFrameUpdates;
+    // 进入下拉列表复用池的条目View，弱引用，被列表丢弃的条目可正常回收
+    private final Set<View> scrapRows = Collections.newSetFromMap(new WeakHashMap<>());
+    private final AbsListView.RecyclerListener rowRecyclerListener = scrapRows::add;
+    // 弹窗实际执行ListPopupWindow.show()（重新测量下拉列表）的次数，供性能测试统计
+    int popupShowCount;
 
     // Attributes Set
     private boolean filterDataVisible = true;
@@ -80,6 +116,26 @@ public class EditableSpinner extends AppCompatEditText
     private int dropdownOffset;
     private Drawable dropDownBackground;
     private int popAnimationStyle;
+    private int dropdownRowHeight;
+    private RowHeightCache rowHeightCache;
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+
+        @Override
+        public void onTrimMemory(int level) {
+            EditableSpinner.this.onTrimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            // Do nothing...
+        }
+
+        @Override
+        public void onLowMemory() {
+            EditableSpinner.this.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+    };
 
 
 
@@ -98,6 +154,7 @@ public class EditableSpinner extends AppCompatEditText
         addTextChangedListener(this);
         loadAttributes(context, attrs, defStyleAttr);
         initializedAnimation();
+        committedValue = textValue();
     }
 
 
@@ -131,6 +188,13 @@ public class EditableSpinner extends AppCompatEditText
                     null, null, dropDownDrawable, null);
         }
 
+        // 设置下拉条目的固定行高，未设置时按测量结果缓存行高
+        dropdownRowHeight = typedArray.getDimensionPixelSize(
+                R.styleable.editable_spinner_dropdownRowHeight, 0);
+        if (typedArray.getBoolean(R.styleable.editable_spinner_dropdownRowHeightCache, true)) {
+            rowHeightCache = new RowHeightCache();
+        }
+
         // 在xml中配置Spinner的下拉数据源
         int entriesId = typedArray.getResourceId(R.styleable.editable_spinner_entries, 0);
         if (entriesId != 0) {
@@ -203,6 +267,15 @@ public class EditableSpinner extends AppCompatEditText
 
             @Override
             public void show() {
+                int count = adapter != null ? adapter.getCount() : 0;
+                boolean contentHeightChanged = isContentHeightChanged(this, count);
+                shownItemCount = count;
+                // 适配器刷新时ListPopupWindow自身也会调用show()；弹窗已显示且高度不变时，
+                // 列表已通过刷新通知重新布局，无需再次测量弹窗；没有结果时弹窗随后由筛选关闭
+                if (isShowing() && (!contentHeightChanged || count == 0)) {
+                    return;
+                }
+                popupShowCount++;
                 if (!isShowing()) {
                     // TODO: 执行ArrowBitmap顺时针旋转180°
                 }
@@ -221,7 +294,9 @@ public class EditableSpinner extends AppCompatEditText
                 AppCompatResources.getDrawable(getContext(), R.drawable.item_selector));
         popupWindow.setOnDismissListener(
                 () -> {
-                    popupWindowHideTime = System.currentTimeMillis();
+                    popupWindowHideTime = SystemClock.uptimeMillis();
+                    // 关闭时ListPopupWindow丢弃下拉列表，复用池中的条目随之释放
+                    scrapRows.clear();
                     // TODO:执行ArrowBitmap逆时针旋转180°
                 }
         );
@@ -243,6 +318,7 @@ public class EditableSpinner extends AppCompatEditText
             AdapterView<?> parent, View view, int position, long id) {
         setSelectText(parent, position);
         dismissDropDown();
+        commitValue();
         handleItemClickExpandAction(parent, view, position, id);
         clearFocus();
         setCursorVisible(false);
@@ -251,8 +327,9 @@ public class EditableSpinner extends AppCompatEditText
     private void setSelectText(AdapterView<?> parent, int position) {
         AbsSpinnerAdapter adapter = ((AbsSpinnerAdapter) parent.getAdapter());
         if (adapter != null) {
-            String selectContent = adapter.getItemValue(position);
-            setText(selectContent);
+            SpinnerItem item = adapter.getSpinnerItem(position);
+            setTextInternally(item != null ? item.getLabel() : "");
+            selectedItem = item;
         } else {
             throw new RuntimeException("AbsSpinnerAdapter is null!");
         }
@@ -263,6 +340,9 @@ public class EditableSpinner extends AppCompatEditText
         if (itemClickExpandAction != null) {
             itemClickExpandAction.onItemClick(parent, view, position, id);
         }
+        if (itemSelectedListener != null && selectedItem != null) {
+            itemSelectedListener.onItemSelected(selectedItem);
+        }
     }
 
     // Solve multiple cursor problems
@@ -275,6 +355,36 @@ public class EditableSpinner extends AppCompatEditText
         } else {
             clearFocus();
             setCursorVisible(false);
+            commitValue();
+        }
+    }
+
+    @Override
+    public void onEditorAction(int actionCode) {
+        super.onEditorAction(actionCode);
+        commitValue();
+    }
+
+    /**
+     * 输入完成（选中条目、失去焦点或点击键盘动作键）时才通知绑定的观察者，
+     * 输入过程中的每个字符不会触发通知
+     */
+    private void commitValue() {
+        String value = textValue();
+        long itemId = getSelectedItemId();
+        boolean valueChanged = !value.equals(committedValue);
+        boolean itemIdChanged = itemId != committedItemId;
+        if (valueChanged || itemIdChanged) {
+            // 用户的输入取代了尚未选中的ID
+            pendingSelectedItemId = AdapterView.INVALID_ROW_ID;
+        }
+        committedValue = value;
+        committedItemId = itemId;
+        if (valueChanged) {
+            notifyPropertyChanged(BR.selectedValue);
+        }
+        if (itemIdChanged) {
+            notifyPropertyChanged(BR.selectedItemId);
         }
     }
 
@@ -319,7 +429,15 @@ public class EditableSpinner extends AppCompatEditText
      */
     @Override
     public void afterTextChanged(Editable s) {
+        if (!settingTextInternally) {
+            // 用户的输入取代了尚未选中的ID
+            pendingSelectedItemId = AdapterView.INVALID_ROW_ID;
+        }
         String key = s.toString();
+        if (selectedItem != null && !selectedItem.getLabel().equals(key)) {
+            // 手动修改了选中的内容，选中条目失效
+            selectedItem = null;
+        }
         if (!TextUtils.isEmpty(key)) {
             if (filterDataVisible && isFocused()) {
                 showFilterData(key);
@@ -329,17 +447,84 @@ public class EditableSpinner extends AppCompatEditText
         }
     }
 
+    /**
+     * 筛选在下一帧执行，同一帧内多次修改文本（快速输入、粘贴、setText）
+     * 只按最后一次的内容筛选一次，适配器每帧最多刷新一次
+     */
     private void showFilterData(String key) {
-        if (popupWindow == null
-                || adapter == null) {
+        pendingFilterKey = key;
+        postFrameUpdates();
+    }
+
+    private void cancelFilterData() {
+        pendingFilterKey = null;
+        // 等待追加的条目仍需在下一帧执行
+        if (frameCallbackPosted && pendingItems == null) {
+            frameCallbackPosted = false;
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+    }
+
+    private void postFrameUpdates() {
+        if (!frameCallbackPosted) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private void applyFrameUpdates(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        String key = pendingFilterKey;
+        pendingFilterKey = null;
+        List<SpinnerItem> items = pendingItems;
+        pendingItems = null;
+
+        if (adapter == null) {
             dismissDropDown();
             return;
         }
 
-        if (adapter.hasFilterResultAbout(key)) {
-            showDropDown();
+        if (items != null) {
+            // 同一帧内还要筛选时由筛选统一刷新
+            applyAppendedItems(items, key == null);
+        }
+        if (key != null) {
+            if (adapter.hasFilterResultAbout(key)) {
+                showDropDown();
+            } else {
+                dismissDropDown();
+            }
+        }
+        if (items != null && pendingItemsAppliedAction != null) {
+            Runnable action = pendingItemsAppliedAction;
+            pendingItemsAppliedAction = null;
+            action.run();
+        }
+    }
+
+    /**
+     * 在已追加、等待下一帧执行的条目应用到适配器之后执行，没有等待的条目时立即执行
+     */
+    void runAfterPendingItems(Runnable action) {
+        if (pendingItems == null) {
+            action.run();
         } else {
-            dismissDropDown();
+            pendingItemsAppliedAction = action;
+        }
+    }
+
+    private void applyAppendedItems(List<SpinnerItem> items, boolean notifyChanged) {
+        int previousCount = adapter.getCount();
+        adapter.appendItems(items, notifyChanged);
+        resolvePendingSelection();
+        if (!notifyChanged) {
+            return;
+        }
+        // 下拉框已显示时随之更新；输入的内容在已加载的部分中没有结果、新条目中有结果时打开下拉框
+        boolean waitingForResult = previousCount == 0
+                && filterDataVisible && isFocused() && !TextUtils.isEmpty(textValue());
+        if (isPopupShowing() || (waitingForResult && adapter.getCount() > 0)) {
+            showDropDown();
         }
     }
 
@@ -361,51 +546,163 @@ public class EditableSpinner extends AppCompatEditText
     }
 
     private void showDropDown() {
-        ListPopupWindow popupWindow = getPopupWindow();
-        if (popupWindow != null) {
-            popupWindow.show();
+        ListPopupWindow popupWindow = obtainPopupWindow();
+        if (popupWindow == null) {
+            return;
+        }
+        popupWindow.show();
+        // 下拉列表在首次显示时创建
+        ListView listView = popupWindow.getListView();
+        if (listView != null) {
+            listView.setRecyclerListener(rowRecyclerListener);
         }
     }
 
-    private void dismissDropDown() {
+    private boolean isContentHeightChanged(ListPopupWindow popupWindow, int count) {
+        if (count == shownItemCount) {
+            return false;
+        }
+        ListView listView = popupWindow.getListView();
+        int visibleRows = listView != null ? listView.getChildCount() : 0;
+        // 变化前后的条目都超出可见行数时，弹窗高度已被限制在最大值
+        return visibleRows == 0 || shownItemCount <= visibleRows || count <= visibleRows;
+    }
+
+    public void dismissDropDown() {
+        cancelFilterData();
         ListPopupWindow popupWindow = getPopupWindow();
         if (popupWindow != null) {
             popupWindow.dismiss();
         }
     }
 
+    public boolean isPopupShowing() {
+        ListPopupWindow popupWindow = getPopupWindow();
+        return popupWindow != null && popupWindow.isShowing();
+    }
+
 
     private void togglePopupWindow() {
 
-        if (adapter == null || popupWindow == null) {
+        if (adapter == null) {
             return;
         }
 
-        long toggleIntervalTime = System.currentTimeMillis() - popupWindowHideTime;
+        long toggleIntervalTime = SystemClock.uptimeMillis() - popupWindowHideTime;
         boolean moreThanToggleIntervalTime = toggleIntervalTime > TOGGLE_POPUP_WINDOW_INTERVAL;
         if (moreThanToggleIntervalTime) {
             showFilterData("");
         }
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getContext().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        getContext().getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
         recycle();
     }
 
 
+    /**
+     * 与窗口分离时只关闭弹窗，保留数据源和筛选索引，
+     * 在ViewPager、RecyclerView中重新attach后无需重建
+     */
     private void recycle() {
         if (dropDownDrawable != null) {
             // TODO:清除动画，如果可以。
         }
         // TODO:关闭动画资源
-        setAdapter(null);
         dismissDropDown();
     }
 
+    /**
+     * 根据内存紧张程度释放可重建的资源，数据源始终保留
+     * <ul>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW}及以上：释放未显示的弹窗及其缓存的列表条目</li>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_BACKGROUND}或
+     * {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL}：同时释放适配器的筛选索引和行高缓存</li>
+     * </ul>
+     * 已与窗口分离的Spinner不会收到系统回调，可由宿主直接调用。
+     *
+     * @param level {@link ComponentCallbacks2} 中的 TRIM_MEMORY_* 常量
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                && popupWindow != null && !popupWindow.isShowing()) {
+            popupWindow.setAdapter(null);
+            popupWindow = null;
+            scrapRows.clear();
+        }
+        if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+                || level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            if (adapter != null) {
+                adapter.trimMemory();
+            }
+            if (rowHeightCache != null) {
+                rowHeightCache.clear();
+            }
+        }
+    }
+
+    /**
+     * 当前持有的内存的估算值（字节），不包含条目对象本身，
+     * 可用于在包含大量Spinner的页面上统计并限制内存占用。
+     * 包括适配器的数组（见 {@link AbsSpinnerAdapter#getRetainedSize()}）、行高缓存，
+     * 以及弹窗和 {@link #getRetainedRowCount()} 个条目View的估算
+     */
+    public long getRetainedSize() {
+        long size = adapter != null ? adapter.getRetainedSize() : 0;
+        if (rowHeightCache != null) {
+            size += rowHeightCache.getRetainedSize();
+        }
+        if (popupWindow != null) {
+            size += ESTIMATED_POPUP_SIZE + (long) ESTIMATED_ROW_SIZE * getRetainedRowCount();
+        }
+        return size;
+    }
+
+    /**
+     * 弹窗中的下拉列表持有的条目View数量，包括列表的子View和复用池中的条目。
+     * 弹窗关闭时下拉列表随之释放，返回0
+     */
+    public int getRetainedRowCount() {
+        ListView listView = popupWindow != null ? popupWindow.getListView() : null;
+        if (listView == null) {
+            return 0;
+        }
+        int count = listView.getChildCount();
+        for (View row : scrapRows) {
+            // 从复用池取出重新使用的条目已是列表的子View
+            if (row.getParent() != listView) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 弹窗是否仍被持有，显示期间弹窗还持有下拉列表及其条目View
+     */
+    public boolean isPopupWindowRetained() {
+        return popupWindow != null;
+    }
+
     private ListPopupWindow getPopupWindow() {
-        return popupWindow != null ? popupWindow.get() : null;
+        return popupWindow;
+    }
+
+    private ListPopupWindow obtainPopupWindow() {
+        if (popupWindow == null && adapter != null) {
+            popupWindow = buildPopupWindow();
+            popupWindow.setAdapter(adapter);
+        }
+        return popupWindow;
     }
 
 
@@ -427,25 +724,181 @@ public class EditableSpinner extends AppCompatEditText
     // User Configuration Interface
 
     public void setItems(String[] data) {
-        adapter = new InputTextAdapter(data);
-        adapter.applyTextColor(this.getCurrentTextColor());
-        adapter.applyTextSize(this.getTextSize());
-        adapter.applyFilterKeyVisible(filterKeyVisible);
-        setAdapter(adapter);
+        setUpAdapter(new InputTextAdapter(data));
     }
 
     public void setItems(List<String> data) {
-        adapter = new InputTextAdapter(data);
+        setUpAdapter(new InputTextAdapter(data));
+    }
+
+    /**
+     * 设置带ID和筛选关键字的条目，与 {@link #setItems(List)} 区分命名，避免空列表时重载不明确
+     */
+    public void setSpinnerItems(Collection<? extends SpinnerItem> items) {
+        setUpAdapter(new InputTextAdapter(items));
+    }
+
+    private void setUpAdapter(AbsSpinnerAdapter adapter) {
         adapter.applyTextColor(this.getCurrentTextColor());
         adapter.applyTextSize(this.getTextSize());
         adapter.applyFilterKeyVisible(filterKeyVisible);
         setAdapter(adapter);
     }
 
+    /**
+     * 从文件或assets中流式加载条目，替换当前数据源。
+     * 条目分批追加，加载过程中即可打开下拉框和筛选已加载的部分
+     */
+    public void loadItems(SpinnerItemLoader loader) {
+        setSpinnerItems(Collections.emptyList());
+        itemLoader = loader;
+        loader.start(this);
+    }
+
+    /**
+     * 在当前数据源末尾追加条目，只对新条目建立索引和筛选，正在显示的下拉框随之更新。
+     * 追加与输入筛选一样在下一帧执行，同一帧内的多次追加合并为一次，适配器每帧最多刷新一次
+     */
+    public void appendItems(Collection<? extends SpinnerItem> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        if (adapter == null) {
+            setSpinnerItems(items);
+            return;
+        }
+        if (pendingItems == null) {
+            pendingItems = new ArrayList<>(items);
+        } else {
+            pendingItems.addAll(items);
+        }
+        postFrameUpdates();
+    }
+
     public void setOnItemClickListener(AdapterView.OnItemClickListener listener) {
         itemClickExpandAction = listener;
     }
 
+    public void setOnItemSelectedListener(OnItemSelectedListener listener) {
+        itemSelectedListener = listener;
+    }
+
+    /**
+     * 最近一次从下拉列表中选中的条目，输入框内容被修改后返回null
+     */
+    public SpinnerItem getSelectedItem() {
+        return selectedItem;
+    }
+
+    @Bindable
+    public long getSelectedItemId() {
+        return selectedItem != null ? selectedItem.getItemId() : AdapterView.INVALID_ROW_ID;
+    }
+
+    /**
+     * 最近一次提交的输入内容，输入过程中不会变化
+     */
+    @Bindable
+    public String getSelectedValue() {
+        return committedValue != null ? committedValue : "";
+    }
+
+    /**
+     * 由代码设置输入内容，视为已提交，不弹出下拉框也不通知selectedValue的观察者。
+     * 与选中条目的显示文本不同时选中条目随之失效，此时通知selectedItemId的观察者
+     */
+    public void setSelectedValue(String value) {
+        applySelectedValue(value);
+        long itemId = getSelectedItemId();
+        if (itemId != committedItemId) {
+            committedItemId = itemId;
+            notifyPropertyChanged(BR.selectedItemId);
+        }
+    }
+
+    /**
+     * 由代码选中条目，视为已提交，不弹出下拉框也不通知观察者
+     */
+    public void setSelectedItem(SpinnerItem item) {
+        applySelectedValue(item != null ? item.getLabel() : "");
+        selectedItem = item;
+        committedItemId = getSelectedItemId();
+    }
+
+    private void applySelectedValue(String value) {
+        pendingSelectedItemId = AdapterView.INVALID_ROW_ID;
+        String text = value != null ? value : "";
+        if (!text.equals(textValue())) {
+            setTextInternally(text);
+            dismissDropDown();
+        }
+        committedValue = text;
+    }
+
+    private void setTextInternally(CharSequence text) {
+        settingTextInternally = true;
+        try {
+            setText(text);
+        } finally {
+            settingTextInternally = false;
+        }
+    }
+
+    /**
+     * 由代码按ID选中条目，视为已提交，不弹出下拉框也不通知观察者。
+     * 当前数据源中没有该条目时（例如数据源尚未设置或仍在加载），
+     * 记下ID，在之后设置或追加的数据源中出现时再选中，期间用户提交输入则放弃
+     */
+    public void setSelectedItemId(long id) {
+        if (id == AdapterView.INVALID_ROW_ID) {
+            setSelectedItem(null);
+            return;
+        }
+        SpinnerItem item = findItemById(id);
+        if (item != null) {
+            setSelectedItem(item);
+        } else {
+            pendingSelectedItemId = id;
+        }
+    }
+
+    private void resolvePendingSelection() {
+        if (pendingSelectedItemId == AdapterView.INVALID_ROW_ID) {
+            return;
+        }
+        SpinnerItem item = findItemById(pendingSelectedItemId);
+        if (item != null) {
+            setSelectedItem(item);
+        }
+    }
+
+    /**
+     * 更换数据源后按ID重新查找选中的条目，新数据源中没有时取消选中，输入内容保留
+     */
+    private void resolveSelectionInAdapter() {
+        if (selectedItem == null) {
+            resolvePendingSelection();
+            return;
+        }
+        SpinnerItem item = findItemById(selectedItem.getItemId());
+        if (item == null) {
+            selectedItem = null;
+            committedItemId = AdapterView.INVALID_ROW_ID;
+            notifyPropertyChanged(BR.selectedItemId);
+        } else if (!item.getLabel().equals(selectedItem.getLabel())) {
+            setSelectedItem(item);
+        } else {
+            selectedItem = item;
+        }
+    }
+
+    /**
+     * 在当前数据源中按ID查找条目，未找到时返回null
+     */
+    public SpinnerItem findItemById(long id) {
+        return adapter != null ? adapter.getItemById(id) : null;
+    }
+
     public String textValue() {
         return getText() == null ? "" : getText().toString();
     }
@@ -492,40 +945,94 @@ public class EditableSpinner extends AppCompatEditText
         }
     }
 
+    /**
+     * 设置下拉条目的固定行高（像素），条目不再逐行测量，小于等于0时恢复按测量结果显示
+     */
+    public void setDropDownRowHeight(int rowHeight) {
+        dropdownRowHeight = rowHeight;
+        if (adapter != null) {
+            adapter.applyRowHeight(rowHeight);
+            // 已显示的条目在重新绑定时应用新的行高，弹窗高度随之变化
+            shownItemCount = -1;
+            adapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * 是否按字号和字体样式缓存单行条目的测量高度，默认开启
+     */
+    public void setDropDownRowHeightCacheEnabled(boolean enabled) {
+        if (enabled == (rowHeightCache != null)) {
+            return;
+        }
+        rowHeightCache = enabled ? new RowHeightCache() : null;
+        if (adapter != null) {
+            adapter.applyRowHeightCache(rowHeightCache);
+            shownItemCount = -1;
+            adapter.notifyDataSetChanged();
+        }
+    }
+
+    public AbsSpinnerAdapter getAdapter() {
+        return adapter;
+    }
+
     public void setAdapter(AbsSpinnerAdapter adapter) {
 
+        if (itemLoader != null) {
+            itemLoader.cancel();
+            itemLoader = null;
+        }
         this.adapter = adapter;
-
-        if (popupWindow == null) {
-            popupWindow = new WeakReference<>(buildPopupWindow());
+        // 等待追加的条目属于之前的数据源
+        pendingItems = null;
+        pendingItemsAppliedAction = null;
+        if (adapter != null) {
+            adapter.applyRowHeight(dropdownRowHeight);
+            adapter.applyRowHeightCache(rowHeightCache);
         }
 
+        // 弹窗在首次显示时创建，已存在时替换其数据源
         ListPopupWindow popupWindow = getPopupWindow();
         if (popupWindow != null) {
+            // 更换数据源时下拉列表丢弃已有的条目View和复用池
             popupWindow.setAdapter(adapter);
+            scrapRows.clear();
+        }
+        resolveSelectionInAdapter();
+        // 新的数据源按输入框中已有的内容筛选，之后追加的条目也按该内容筛选
+        String text = textValue();
+        if (adapter != null && !text.isEmpty()) {
+            adapter.hasFilterResultAbout(text);
         }
     }
 
+    // 与View的其他状态一样只在主线程访问，不需要加锁
     private transient PropertyChangeRegistry mCallbacks;
 
     @Override
     public void addOnPropertyChangedCallback(@NonNull OnPropertyChangedCallback callback) {
-        synchronized (this) {
-            if (mCallbacks == null) {
-                mCallbacks = new PropertyChangeRegistry();
-            }
+        if (mCallbacks == null) {
+            mCallbacks = new PropertyChangeRegistry();
         }
         mCallbacks.add(callback);
     }
 
     @Override
     public void removeOnPropertyChangedCallback(@NonNull OnPropertyChangedCallback callback) {
-        synchronized (this) {
-            if (mCallbacks == null) {
-                return;
-            }
+        if (mCallbacks != null) {
+            mCallbacks.remove(callback);
+        }
+    }
+
+    private void notifyPropertyChanged(int fieldId) {
+        if (mCallbacks != null) {
+            mCallbacks.notifyCallbacks(this, fieldId, null);
         }
-        mCallbacks.remove(callback);
+    }
+
+    public interface OnItemSelectedListener {
+        void onItemSelected(SpinnerItem item);
     }
 
 }
@@ -0,0 +1,96 @@
+package com.milylg.spinner;
+
+import androidx.databinding.BindingAdapter;
+import androidx.databinding.InverseBindingAdapter;
+import androidx.databinding.InverseBindingListener;
+import androidx.databinding.Observable;
+import androidx.databinding.adapters.ListenerUtil;
+
+import java.util.List;
+
+/**
+ * EditableSpinner的数据绑定适配器
+ * <p>
+ * app:items 绑定数据源，app:selectedValue、app:selectedItemId 支持双向绑定。
+ * 反向绑定只在输入提交时（选中条目、失去焦点、键盘动作键）通知，输入过程中的字符不会回写到模型。
+ */
+public class EditableSpinnerBindingAdapter {
+
+    @BindingAdapter("items")
+    public static void setItems(EditableSpinner view,
+                                List<? extends SpinnerItem> oldItems,
+                                List<? extends SpinnerItem> newItems) {
+        // 同一个列表重复绑定时不重建适配器和筛选索引
+        if (oldItems == newItems) {
+            return;
+        }
+        if (newItems != null) {
+            view.setSpinnerItems(newItems);
+        } else {
+            view.setAdapter(null);
+        }
+    }
+
+    @BindingAdapter("selectedValue")
+    public static void setSelectedValue(EditableSpinner view, String value) {
+        String text = value != null ? value : "";
+        if (!text.equals(view.getSelectedValue())) {
+            view.setSelectedValue(text);
+        }
+    }
+
+    @InverseBindingAdapter(attribute = "selectedValue", event = "selectedValueAttrChanged")
+    public static String getSelectedValue(EditableSpinner view) {
+        return view.getSelectedValue();
+    }
+
+    @BindingAdapter("selectedValueAttrChanged")
+    public static void setSelectedValueListener(EditableSpinner view,
+                                                InverseBindingListener listener) {
+        trackPropertyListener(view, BR.selectedValue, listener, R.id.selected_value_listener);
+    }
+
+    @BindingAdapter("selectedItemId")
+    public static void setSelectedItemId(EditableSpinner view, long id) {
+        // items绑定在selectedItemId之后执行时，由setSpinnerItems选中暂存的ID
+        if (id != view.getSelectedItemId()) {
+            view.setSelectedItemId(id);
+        }
+    }
+
+    @InverseBindingAdapter(attribute = "selectedItemId", event = "selectedItemIdAttrChanged")
+    public static long getSelectedItemId(EditableSpinner view) {
+        return view.getSelectedItemId();
+    }
+
+    @BindingAdapter("selectedItemIdAttrChanged")
+    public static void setSelectedItemIdListener(EditableSpinner view,
+                                                 InverseBindingListener listener) {
+        trackPropertyListener(view, BR.selectedItemId, listener, R.id.selected_item_id_listener);
+    }
+
+    private static void trackPropertyListener(EditableSpinner view,
+                                              int propertyId,
+                                              InverseBindingListener listener,
+                                              int listenerResId) {
+        Observable.OnPropertyChangedCallback callback = null;
+        if (listener != null) {
+            callback = new Observable.OnPropertyChangedCallback() {
+                @Override
+                public void onPropertyChanged(Observable sender, int changedPropertyId) {
+                    if (changedPropertyId == propertyId) {
+                        listener.onChange();
+                    }
+                }
+            };
+        }
+        Observable.OnPropertyChangedCallback oldCallback =
+                ListenerUtil.trackListener(view, callback, listenerResId);
+        if (oldCallback != null) {
+            view.removeOnPropertyChangedCallback(oldCallback);
+        }
+        if (callback != null) {
+            view.addOnPropertyChangedCallback(callback);
+        }
+    }
+}
@@ -1,19 +1,20 @@
 package com.milylg.spinner;
 
 import android.content.res.Configuration;
-import android.os.Build;
-import android.text.Html;
-import android.util.Log;
+import android.graphics.Color;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import androidx.annotation.ColorInt;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 
+import java.util.Collection;
 import java.util.List;
 
 
@@ -22,8 +23,12 @@ public class InputTextAdapter extends AbsSpinnerAdapter implements InputTextFilt
     private int textColor;
     private float textSize;
     private int itemBackgroundSelectorResId;
-    private String filterKeyColor =  "#E09070";
+    @ColorInt
+    private int filterKeyColor = Color.parseColor("#E09070");
     private boolean filterKeyVisible = false;
+    private String filterKeyword;
+    private int fixedRowHeight;
+    private RowHeightCache rowHeightCache;
 
 
     public InputTextAdapter(List<String> data) {
@@ -34,6 +39,10 @@ public class InputTextAdapter extends AbsSpinnerAdapter implements InputTextFilt
         super(data);
     }
 
+    public InputTextAdapter(Collection<? extends SpinnerItem> items) {
+        super(items);
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
         final ViewHolder holder;
@@ -45,40 +54,62 @@ public class InputTextAdapter extends AbsSpinnerAdapter implements InputTextFilt
         } else {
             holder = ((ViewHolder) convertView.getTag());
         }
-        holder.mTextView.setText(Html.fromHtml(getItem(position)));
+        holder.applyRowHeight(fixedRowHeight, rowHeightCache);
+        holder.mTextView.setText(markFilterKey(getItemValue(position)));
         return convertView;
     }
 
+    private CharSequence markFilterKey(String label) {
+        if (!filterKeyVisible || filterKeyword == null || filterKeyword.isEmpty()) {
+            return label;
+        }
+        int start = label.indexOf(filterKeyword);
+        if (start < 0) {
+            // 命中的是其他关键字，显示文本中没有可标记的内容
+            return label;
+        }
+        SpannableString markKeyText = new SpannableString(label);
+        markKeyText.setSpan(new ForegroundColorSpan(filterKeyColor),
+                start, start + filterKeyword.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        return markKeyText;
+    }
+
     @Override
     public boolean hasFilterResultAbout(String keyword) {
-        matchingItemData.clear();
+        filterKeyword = keyword;
         if (keyword == null || keyword.isEmpty()) {
-
-            initDisplayData(dataSource);
-            for (int i = 0; i < indexSet.length; i++) {
-                indexSet[i] = i;
-            }
+            initDisplayData();
         } else {
-
-            String keyPatten = "[^\\s]*" + keyword + "[^\\s]*";
-
-            for (int i = 0; i < dataSource.size(); i++) {
-                String itemValue = getDataSourceItemValue(i);
-                if (itemValue.replaceAll("\\s+", "|").matches(keyPatten)) {
-                    indexSet[matchingItemData.size()] = i;
-                    if (filterKeyVisible) {
-                        String markKey = "<font color=\"" + filterKeyColor + "\">" + keyword + "</font>";
-                        String markKeyText = getDataSourceItemValue(i).replaceFirst(keyword, markKey);
-                        matchingItemData.add(markKeyText);
-                    } else {
-                        matchingItemData.add(getDataSourceItemValue(i));
-                    }
+            ensureKeyIndex();
+            matchingCount = 0;
+            int lastOwner = -1;
+            for (int k = 0; k < keyCount; k++) {
+                int owner = keyOwner[k];
+                // 同一条目的多个关键字相邻存放，已命中的条目跳过其余关键字
+                if (owner != lastOwner && keyIndex[k].contains(keyword)) {
+                    indexSet[matchingCount++] = owner;
+                    lastOwner = owner;
                 }
             }
-
         }
         notifyDataSetChanged();
-        return matchingItemData.size() > 0;
+        return matchingCount > 0;
+    }
+
+    @Override
+    void onItemsAppended(int fromIndex) {
+        if (filterKeyword == null || filterKeyword.isEmpty()) {
+            initDisplayData();
+            return;
+        }
+        for (int i = fromIndex; i < dataSource.size(); i++) {
+            for (String key : dataSource.get(i).getSearchKeys()) {
+                if (key.contains(filterKeyword)) {
+                    indexSet[matchingCount++] = i;
+                    break;
+                }
+            }
+        }
     }
 
     public void applyTextColor(@ColorInt int textColor) {
@@ -94,9 +125,12 @@ public class InputTextAdapter extends AbsSpinnerAdapter implements InputTextFilt
         this.itemBackgroundSelectorResId = backgroundSelector;
     }
 
+    /**
+     * @throws IllegalArgumentException 颜色字符串无法解析时，在设置时抛出而不是在绑定条目时
+     */
     @Override
     void applyFilterKeyColor(String filterColor) {
-        this.filterKeyColor = filterColor;
+        this.filterKeyColor = Color.parseColor(filterColor);
     }
 
     @Override
@@ -104,9 +138,21 @@ public class InputTextAdapter extends AbsSpinnerAdapter implements InputTextFilt
         this.filterKeyVisible = filterKeyVisible;
     }
 
+    @Override
+    void applyRowHeight(int rowHeight) {
+        this.fixedRowHeight = rowHeight;
+    }
+
+    @Override
+    void applyRowHeightCache(RowHeightCache rowHeightCache) {
+        this.rowHeightCache = rowHeightCache;
+    }
+
     private static class ViewHolder {
 
-        private final TextView mTextView;
+        private final SpinnerRowView mTextView;
+        // 布局文件中的行高，取消固定行高时恢复
+        private final int inflatedRowHeight;
 
         private ViewHolder(@NonNull View convertView,
                            @ColorInt int textColor,
@@ -114,6 +160,8 @@ public class InputTextAdapter extends AbsSpinnerAdapter implements InputTextFilt
                            @DrawableRes int backgroundSelector) {
 
             mTextView = convertView.findViewById(R.id.tv_tinted_spinner);
+            ViewGroup.LayoutParams params = mTextView.getLayoutParams();
+            inflatedRowHeight = params != null ? params.height : ViewGroup.LayoutParams.WRAP_CONTENT;
             mTextView.setTextColor(textColor);
             mTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
             if (backgroundSelector != 0) {
@@ -124,6 +172,16 @@ public class InputTextAdapter extends AbsSpinnerAdapter implements InputTextFilt
                 mTextView.setTextDirection(View.TEXT_DIRECTION_RTL);
             }
         }
+
+        private void applyRowHeight(int fixedRowHeight, RowHeightCache rowHeightCache) {
+            mTextView.applyRowHeight(fixedRowHeight, rowHeightCache);
+            ViewGroup.LayoutParams params = mTextView.getLayoutParams();
+            int rowHeight = fixedRowHeight > 0 ? fixedRowHeight : inflatedRowHeight;
+            if (params != null && params.height != rowHeight) {
+                params.height = rowHeight;
+                mTextView.requestLayout();
+            }
+        }
     }
 
 }
@@ -0,0 +1,65 @@
+package com.milylg.spinner;
+
+import android.graphics.Typeface;
+
+import java.util.Arrays;
+
+/**
+ * 下拉条目的测量高度缓存
+ * <p>
+ * 单行条目的高度只取决于字号和字体样式，同一个Spinner中的条目测量一次后即可复用，
+ * 再次打开下拉框或筛选结果变化时不必重新测量文字。
+ * 不同字号/样式的组合很少，使用线性查找的数组保存，查询时不产生对象分配。
+ */
+final class RowHeightCache {
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    private float[] textSizes = new float[INITIAL_CAPACITY];
+    private int[] styles = new int[INITIAL_CAPACITY];
+    private int[] heights = new int[INITIAL_CAPACITY];
+    private int size;
+
+
+    int get(float textSize, Typeface typeface) {
+        int style = styleOf(typeface);
+        for (int i = 0; i < size; i++) {
+            if (textSizes[i] == textSize && styles[i] == style) {
+                return heights[i];
+            }
+        }
+        return 0;
+    }
+
+    void put(float textSize, Typeface typeface, int height) {
+        int style = styleOf(typeface);
+        for (int i = 0; i < size; i++) {
+            if (textSizes[i] == textSize && styles[i] == style) {
+                heights[i] = height;
+                return;
+            }
+        }
+        if (size == heights.length) {
+            int capacity = size * 2;
+            textSizes = Arrays.copyOf(textSizes, capacity);
+            styles = Arrays.copyOf(styles, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+        textSizes[size] = textSize;
+        styles[size] = style;
+        heights[size] = height;
+        size++;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    long getRetainedSize() {
+        return 12L * heights.length;
+    }
+
+    private static int styleOf(Typeface typeface) {
+        return typeface != null ? typeface.getStyle() : Typeface.NORMAL;
+    }
+}
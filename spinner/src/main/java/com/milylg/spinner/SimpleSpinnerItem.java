@@ -0,0 +1,47 @@
+package com.milylg.spinner;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link SpinnerItem} 的默认实现
+ * <p>
+ * 未指定关键字时，以显示文本作为唯一的筛选关键字。
+ */
+public class SimpleSpinnerItem implements SpinnerItem {
+
+    private final long id;
+    private final String label;
+    private final String[] searchKeys;
+
+
+    public SimpleSpinnerItem(long id, @NonNull String label, String... searchKeys) {
+        this.id = id;
+        this.label = label;
+        this.searchKeys = searchKeys == null || searchKeys.length == 0
+                ? new String[]{label}
+                : searchKeys;
+    }
+
+    @Override
+    public long getItemId() {
+        return id;
+    }
+
+    @NonNull
+    @Override
+    public String getLabel() {
+        return label;
+    }
+
+    @NonNull
+    @Override
+    public String[] getSearchKeys() {
+        return searchKeys;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return label;
+    }
+}
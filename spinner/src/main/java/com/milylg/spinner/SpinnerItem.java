@@ -0,0 +1,30 @@
+package com.milylg.spinner;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 下拉条目的数据模型
+ * <p>
+ * 筛选时只匹配 {@link #getSearchKeys()} 返回的关键字，
+ * 列表中显示 {@link #getLabel()}，选中后通过 {@link #getItemId()} 回传稳定的ID，
+ * 调用方无需再根据显示文本反查原始数据。
+ */
+public interface SpinnerItem {
+
+    /**
+     * 稳定的条目ID，不随筛选结果中的位置变化
+     */
+    long getItemId();
+
+    /**
+     * 在下拉列表中显示、选中后填入输入框的文本
+     */
+    @NonNull
+    String getLabel();
+
+    /**
+     * 参与筛选匹配的关键字，实现类应返回缓存的数组，避免每次筛选都创建新对象
+     */
+    @NonNull
+    String[] getSearchKeys();
+}
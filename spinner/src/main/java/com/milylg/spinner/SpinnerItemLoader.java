@@ -0,0 +1,244 @@
+package com.milylg.spinner;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 从本地文件或assets中流式加载下拉条目
+ * <p>
+ * 在后台线程逐行读取并按块解析，每读完一块就交给主线程追加到适配器，
+ * 第一块很小，数据源很大时也能很快显示并开始筛选，筛选范围是已加载的部分。
+ * 主线程一次取走所有已解析的块，读取速度快于界面时多个块合并为一次追加和刷新。
+ * 加载完成的通知在最后一块追加到适配器之后发出；读取或解析（包括自定义的LineParser）
+ * 抛出异常时通过 {@link OnLoadListener#onLoadFailed(Exception)} 通知，已追加的条目保留。
+ * <p>
+ * 加载线程只弱引用EditableSpinner，页面销毁时不会因为加载未完成而泄漏Activity，
+ * Spinner被回收后在读完当前块时停止读取。OnLoadListener是强引用，
+ * 监听器引用了Activity时，应在页面销毁（如onDestroy）时调用 {@link #cancel()}。
+ */
+public class SpinnerItemLoader {
+
+    private static final String TAG = "SpinnerItemLoader";
+    private static final int FIRST_CHUNK_SIZE = 256;
+    private static final int MAX_CHUNK_SIZE = 8192;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 每行一个条目，行内容即显示文本和关键字，行号作为ID，空行跳过
+     */
+    public static final LineParser LINES = (line, lineNumber) ->
+            line.isEmpty() ? null : new SimpleSpinnerItem(lineNumber, line);
+
+    /**
+     * 逗号分隔的条目：id,显示文本[,关键字...]，不支持引号转义，无法解析的行跳过
+     */
+    public static final LineParser CSV = (line, lineNumber) -> {
+        String[] columns = line.split(",");
+        if (columns.length < 2) {
+            return null;
+        }
+        long id;
+        try {
+            id = Long.parseLong(columns[0].trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        String label = columns[1].trim();
+        if (columns.length == 2) {
+            return new SimpleSpinnerItem(id, label);
+        }
+        String[] keys = new String[columns.length - 1];
+        keys[0] = label;
+        for (int i = 2; i < columns.length; i++) {
+            keys[i - 1] = columns[i].trim();
+        }
+        return new SimpleSpinnerItem(id, label, keys);
+    };
+
+    private final Source source;
+    private final LineParser parser;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ConcurrentLinkedQueue<List<SpinnerItem>> pendingChunks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainPosted = new AtomicBoolean();
+    private final Runnable drainAction = this::drainPendingChunks;
+
+    private volatile boolean cancelled;
+    // 读取完成后由加载线程赋值，之后不再修改
+    private volatile boolean finished;
+    private volatile int loadedCount;
+    // 只在主线程访问
+    private boolean finishReported;
+    // 在start中、加载线程启动之前赋值，之后不再修改
+    private WeakReference<EditableSpinner> spinnerRef;
+    private OnLoadListener loadListener;
+    private Thread worker;
+
+
+    public SpinnerItemLoader(Source source, LineParser parser) {
+        this.source = source;
+        this.parser = parser;
+    }
+
+    public static SpinnerItemLoader fromAsset(Context context, String assetName, LineParser parser) {
+        AssetManager assets = context.getApplicationContext().getAssets();
+        return new SpinnerItemLoader(
+                () -> assets.open(assetName, AssetManager.ACCESS_STREAMING), parser);
+    }
+
+    public static SpinnerItemLoader fromFile(File file, LineParser parser) {
+        return new SpinnerItemLoader(() -> new FileInputStream(file), parser);
+    }
+
+    public void setOnLoadListener(OnLoadListener listener) {
+        loadListener = listener;
+    }
+
+    /**
+     * 开始在后台线程加载，只能在主线程调用一次
+     */
+    void start(EditableSpinner spinner) {
+        if (worker != null) {
+            throw new IllegalStateException("SpinnerItemLoader can only be started once!");
+        }
+        spinnerRef = new WeakReference<>(spinner);
+        worker = new Thread(this::read, "EditableSpinner-loader");
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * 停止加载，已追加到适配器的条目保留，只能在主线程调用
+     */
+    public void cancel() {
+        cancelled = true;
+        pendingChunks.clear();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void read() {
+        int itemCount = 0;
+        try (InputStream in = source.open();
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+
+            int chunkSize = FIRST_CHUNK_SIZE;
+            List<SpinnerItem> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String line;
+            while (!cancelled && spinnerRef.get() != null && (line = reader.readLine()) != null) {
+                SpinnerItem item = parser.parse(line, lineNumber++);
+                if (item == null) {
+                    continue;
+                }
+                chunk.add(item);
+                if (chunk.size() >= chunkSize) {
+                    itemCount += chunk.size();
+                    publish(chunk);
+                    chunkSize = Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                itemCount += chunk.size();
+                publish(chunk);
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "load items failed", e);
+            mainHandler.post(() -> {
+                if (!cancelled && loadListener != null) {
+                    loadListener.onLoadFailed(e);
+                }
+            });
+            return;
+        }
+
+        loadedCount = itemCount;
+        finished = true;
+        // 由主线程在取走最后一块之后通知完成
+        if (drainPosted.compareAndSet(false, true)) {
+            mainHandler.post(drainAction);
+        }
+    }
+
+    private void publish(List<SpinnerItem> chunk) {
+        pendingChunks.add(chunk);
+        if (drainPosted.compareAndSet(false, true)) {
+            mainHandler.post(drainAction);
+        }
+    }
+
+    private void drainPendingChunks() {
+        // 先复位标记再取数据，取数据之后到达的块会重新投递
+        drainPosted.set(false);
+        if (cancelled) {
+            return;
+        }
+        EditableSpinner spinner = spinnerRef.get();
+        if (spinner == null) {
+            cancel();
+            return;
+        }
+        // 先读完成标记再取数据，标记之前发布的块都能在本次取到
+        boolean readFinished = finished;
+        List<SpinnerItem> chunk = pendingChunks.poll();
+        if (chunk != null) {
+            List<SpinnerItem> next;
+            while ((next = pendingChunks.poll()) != null) {
+                chunk.addAll(next);
+            }
+            spinner.appendItems(chunk);
+        }
+        if (readFinished && !finishReported) {
+            finishReported = true;
+            // 追加的条目在下一帧应用到适配器，之后再通知完成
+            spinner.runAfterPendingItems(this::notifyLoadFinished);
+        }
+    }
+
+    private void notifyLoadFinished() {
+        if (!cancelled && loadListener != null) {
+            loadListener.onLoadFinished(loadedCount);
+        }
+    }
+
+
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    public interface LineParser {
+        /**
+         * 解析一行内容，返回null时跳过该行，抛出的运行时异常会终止加载并通知onLoadFailed
+         */
+        SpinnerItem parse(String line, long lineNumber);
+    }
+
+    public interface OnLoadListener {
+        void onLoadFinished(int itemCount);
+
+        /**
+         * 读取失败（IOException）或LineParser抛出运行时异常时调用，已追加的条目保留
+         */
+        void onLoadFailed(Exception e);
+    }
+}
@@ -0,0 +1,69 @@
+package com.milylg.spinner;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+import androidx.appcompat.widget.AppCompatTextView;
+
+/**
+ * 下拉列表的条目View
+ * <p>
+ * 条目高度已知（固定行高或已缓存的测量高度）且宽度与上次测量相同时跳过TextView的onMeasure，
+ * 直接使用已知高度。宽度变化时TextView需要按新宽度重建文字排版，仍执行完整的测量。
+ * {@link #textMeasureCount} 记录实际执行TextView测量的次数，供性能测试统计。
+ */
+public class SpinnerRowView extends AppCompatTextView {
+
+    private int fixedRowHeight;
+    private RowHeightCache heightCache;
+    int textMeasureCount;
+
+
+    public SpinnerRowView(Context context) {
+        super(context);
+    }
+
+    public SpinnerRowView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public SpinnerRowView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    void applyRowHeight(int fixedRowHeight, RowHeightCache heightCache) {
+        this.fixedRowHeight = fixedRowHeight;
+        this.heightCache = heightCache;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int knownHeight = resolveKnownHeight();
+        if (knownHeight > 0
+                && MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED
+                && MeasureSpec.getSize(widthMeasureSpec) == getMeasuredWidth()) {
+            setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec),
+                    resolveSize(knownHeight, heightMeasureSpec));
+            return;
+        }
+        textMeasureCount++;
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        // 受AT_MOST限制时测得的高度不一定是条目的真实高度，不缓存
+        if (heightCache != null
+                && getMaxLines() == 1
+                && MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.AT_MOST) {
+            heightCache.put(getTextSize(), getTypeface(), getMeasuredHeight());
+        }
+    }
+
+    private int resolveKnownHeight() {
+        if (fixedRowHeight > 0) {
+            return fixedRowHeight;
+        }
+        // 多行条目的高度与文字内容有关，不能复用
+        if (heightCache != null && getMaxLines() == 1) {
+            return heightCache.get(getTextSize(), getTypeface());
+        }
+        return 0;
+    }
+}
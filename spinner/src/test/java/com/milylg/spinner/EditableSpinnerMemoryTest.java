@@ -0,0 +1,222 @@
+package com.milylg.spinner;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.text.Editable;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 与窗口分离再重新attach时保留的状态，以及各个内存紧张等级释放的资源
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class EditableSpinnerMemoryTest {
+
+    private static final int ITEM_COUNT = 2_000;
+    // EditableSpinner在下拉框关闭后的200ms内忽略箭头点击
+    private static final long TOGGLE_POPUP_WINDOW_INTERVAL = 250;
+
+    private Activity activity;
+    private FrameLayout root;
+
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.getTheme().applyStyle(R.style.ThemeOverlay_Editable_Spinner, false);
+        root = new FrameLayout(activity);
+        activity.setContentView(root);
+    }
+
+    @Test
+    public void detachAndReattach_keepsItemsAndFilter() {
+        EditableSpinner spinner = attachSpinner();
+        TypingSession.CountingAdapter adapter = new TypingSession.CountingAdapter(mockItems());
+        spinner.setAdapter(adapter);
+        type(spinner, "key 7");
+        assertTrue(spinner.isPopupShowing());
+        assertTrue(spinner.getRetainedRowCount() > 0);
+        int matchCount = adapter.getCount();
+
+        root.removeView(spinner);
+        assertFalse(spinner.isPopupShowing());
+        assertEquals(0, spinner.getRetainedRowCount());
+        assertTrue(spinner.isPopupWindowRetained());
+        // 分离后不再接收系统的内存回调
+        RuntimeEnvironment.application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertTrue(spinner.isPopupWindowRetained());
+
+        attach(spinner);
+        assertSame(adapter, spinner.getAdapter());
+        assertEquals("key 7", spinner.textValue());
+        assertEquals(matchCount, adapter.getCount());
+        adapter.reset();
+        type(spinner, "1");
+        assertEquals(1, adapter.filterPasses);
+        assertFilterResult(adapter, "key 71");
+        assertTrue(spinner.isPopupShowing());
+
+        spinner.dismissDropDown();
+        RuntimeEnvironment.application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertFalse(spinner.isPopupWindowRetained());
+    }
+
+    @Test
+    public void trimBelowRunningLow_releasesNothing() {
+        EditableSpinner spinner = attachSpinner();
+        spinner.setSpinnerItems(mockItems());
+        type(spinner, "key 7");
+        spinner.dismissDropDown();
+        long retainedSize = spinner.getRetainedSize();
+
+        spinner.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertTrue(spinner.isPopupWindowRetained());
+        assertEquals(retainedSize, spinner.getRetainedSize());
+    }
+
+    @Test
+    public void trimRunningLow_releasesIdlePopupOnly() {
+        EditableSpinner spinner = attachSpinner();
+        spinner.setSpinnerItems(mockItems());
+        type(spinner, "key 7");
+        long adapterSize = spinner.getAdapter().getRetainedSize();
+        int rowCount = spinner.getRetainedRowCount();
+
+        // 正在显示的弹窗不释放
+        spinner.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertTrue(spinner.isPopupShowing());
+        assertEquals(rowCount, spinner.getRetainedRowCount());
+
+        spinner.dismissDropDown();
+        long retainedSize = spinner.getRetainedSize();
+        spinner.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertFalse(spinner.isPopupWindowRetained());
+        assertTrue(spinner.getRetainedSize() < retainedSize);
+        // 筛选索引保留
+        assertEquals(adapterSize, spinner.getAdapter().getRetainedSize());
+
+        openDropDown(spinner);
+        assertTrue(spinner.isPopupShowing());
+        assertTrue(spinner.getRetainedRowCount() > 0);
+    }
+
+    @Test
+    public void trimBackgroundOrCritical_releasesIndexAndRowHeights() {
+        int[] levels = {
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL,
+                ComponentCallbacks2.TRIM_MEMORY_BACKGROUND,
+                ComponentCallbacks2.TRIM_MEMORY_COMPLETE,
+        };
+        for (int level : levels) {
+            EditableSpinner spinner = attachSpinner();
+            TypingSession.CountingAdapter adapter = new TypingSession.CountingAdapter(mockItems());
+            spinner.setAdapter(adapter);
+            // 首次筛选时建立关键字索引
+            type(spinner, "key 7");
+            // 行高已缓存，复用的条目重新绑定时不再测量文字
+            adapter.reset();
+            type(spinner, "1");
+            assertEquals("level " + level, 0, adapter.textMeasures());
+            long adapterSize = adapter.getRetainedSize();
+
+            spinner.onTrimMemory(level);
+            assertTrue("level " + level, spinner.isPopupShowing());
+            assertTrue("level " + level, adapter.getRetainedSize() < adapterSize);
+            // 数据源始终保留
+            assertNotNull("level " + level, adapter.getItemById(1000L + ITEM_COUNT - 1));
+
+            adapter.reset();
+            backspace(spinner);
+            assertTrue("level " + level, adapter.textMeasures() > 0);
+            // 筛选索引在下次筛选时重建
+            assertFilterResult(adapter, "key 7");
+            assertEquals("level " + level, adapterSize, adapter.getRetainedSize());
+
+            spinner.dismissDropDown();
+            spinner.onTrimMemory(level);
+            assertFalse("level " + level, spinner.isPopupWindowRetained());
+            root.removeView(spinner);
+        }
+    }
+
+    private EditableSpinner attachSpinner() {
+        EditableSpinner spinner = new EditableSpinner(activity);
+        Drawable arrow = new ColorDrawable();
+        arrow.setBounds(0, 0, 48, 48);
+        spinner.setCompoundDrawables(null, null, arrow, null);
+        attach(spinner);
+        return spinner;
+    }
+
+    private void attach(EditableSpinner spinner) {
+        root.addView(spinner, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        spinner.requestFocus();
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+    }
+
+    private static void type(EditableSpinner spinner, String text) {
+        spinner.getText().append(text);
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+    }
+
+    private static void backspace(EditableSpinner spinner) {
+        Editable text = spinner.getText();
+        text.delete(text.length() - 1, text.length());
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+    }
+
+    private static void openDropDown(EditableSpinner spinner) {
+        ShadowLooper.idleMainLooper(TOGGLE_POPUP_WINDOW_INTERVAL, TimeUnit.MILLISECONDS);
+        MotionEvent up = MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, spinner.getWidth() - 1, 0, 0);
+        spinner.onTouchEvent(up);
+        up.recycle();
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+    }
+
+    private static void assertFilterResult(AbsSpinnerAdapter adapter, String key) {
+        List<Long> actual = new ArrayList<>();
+        for (int i = 0; i < adapter.getCount(); i++) {
+            actual.add(adapter.getItemId(i));
+        }
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            if (("key " + (i % 97)).contains(key)) {
+                expected.add(1000L + i);
+            }
+        }
+        assertEquals(expected, actual);
+    }
+
+    private static List<SpinnerItem> mockItems() {
+        List<SpinnerItem> data = new ArrayList<>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            data.add(new SimpleSpinnerItem(1000L + i, "Title - No." + i,
+                    "Title - No." + i, "key " + (i % 97)));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,116 @@
+package com.milylg.spinner;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+import android.view.inputmethod.EditorInfo;
+import android.widget.AdapterView;
+import android.widget.FrameLayout;
+
+import androidx.databinding.Observable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 输入过程中不通知绑定的观察者，提交时通知一次；由代码选中的ID与用户输入的关系
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class EditableSpinnerSelectionTest {
+
+    private EditableSpinner spinner;
+    private final List<Integer> changedProperties = new ArrayList<>();
+
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.getTheme().applyStyle(R.style.ThemeOverlay_Editable_Spinner, false);
+        spinner = new EditableSpinner(activity);
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(spinner, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        activity.setContentView(root);
+        spinner.requestFocus();
+        spinner.addOnPropertyChangedCallback(new Observable.OnPropertyChangedCallback() {
+            @Override
+            public void onPropertyChanged(Observable sender, int propertyId) {
+                changedProperties.add(propertyId);
+            }
+        });
+    }
+
+    @Test
+    public void typing_notifiesOnlyOnCommit() {
+        spinner.setSpinnerItems(mockItems());
+        String text = "Title - No.4";
+        for (int i = 0; i < text.length(); i++) {
+            spinner.getText().append(text.charAt(i));
+            ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(0, changedProperties.size());
+
+        spinner.onEditorAction(EditorInfo.IME_ACTION_DONE);
+        assertEquals(1, changedProperties.size());
+        assertEquals(BR.selectedValue, (int) changedProperties.get(0));
+        assertEquals(text, spinner.getSelectedValue());
+    }
+
+    @Test
+    public void setSelectedValue_notifiesClearedItemId() {
+        spinner.setSpinnerItems(mockItems());
+        spinner.setSelectedItemId(1003);
+        assertEquals(1003, spinner.getSelectedItemId());
+        assertEquals(0, changedProperties.size());
+
+        spinner.setSelectedValue("something else");
+        assertEquals(AdapterView.INVALID_ROW_ID, spinner.getSelectedItemId());
+        assertEquals(1, changedProperties.size());
+        assertEquals(BR.selectedItemId, (int) changedProperties.get(0));
+
+        // 与选中条目的显示文本相同时条目保持选中
+        spinner.setSelectedItemId(1004);
+        changedProperties.clear();
+        spinner.setSelectedValue("Title - No.4");
+        assertEquals(1004, spinner.getSelectedItemId());
+        assertEquals(0, changedProperties.size());
+    }
+
+    @Test
+    public void pendingItemId_selectedWhenItemsArrive() {
+        spinner.setSelectedItemId(1003);
+        spinner.setSpinnerItems(mockItems());
+        assertEquals(1003, spinner.getSelectedItemId());
+        assertEquals("Title - No.3", spinner.textValue());
+    }
+
+    @Test
+    public void pendingItemId_droppedByUserEdit() {
+        spinner.setSelectedItemId(1003);
+        spinner.getText().append("T");
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+
+        spinner.setSpinnerItems(mockItems());
+        assertEquals(AdapterView.INVALID_ROW_ID, spinner.getSelectedItemId());
+        assertEquals("T", spinner.textValue());
+    }
+
+    private static List<SpinnerItem> mockItems() {
+        List<SpinnerItem> data = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            data.add(new SimpleSpinnerItem(1000L + i, "Title - No." + i));
+        }
+        return data;
+    }
+}
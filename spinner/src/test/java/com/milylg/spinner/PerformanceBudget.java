@@ -0,0 +1,47 @@
+package com.milylg.spinner;
+
+/**
+ * 单步操作（一次按键、打开或关闭下拉框）允许消耗的资源上限
+ * <p>
+ * 默认值可通过系统属性覆盖，便于在CI中收紧或放宽预算，name区分不同的会话，例如
+ * spinner.perf.adapter.maxBytesPerStep、spinner.perf.view.maxFilterPassesPerStep、
+ * spinner.perf.view.maxNotifiesPerStep、spinner.perf.view.maxBindsPerStep、
+ * spinner.perf.view.maxShowsPerStep、spinner.perf.view.maxTextMeasuresPerStep
+ */
+final class PerformanceBudget {
+
+    final long maxBytesPerStep;
+    final int maxFilterPassesPerStep;
+    final int maxNotifiesPerStep;
+    final int maxBindsPerStep;
+    // 弹窗show()的次数；下拉框显示中、筛选前后高度都已达到上限的步骤不允许调用show()
+    final int maxShowsPerStep;
+    // 条目执行TextView测量的次数，行高已知且宽度不变时应跳过
+    final int maxTextMeasuresPerStep;
+
+
+    PerformanceBudget(long maxBytesPerStep,
+                      int maxFilterPassesPerStep,
+                      int maxNotifiesPerStep,
+                      int maxBindsPerStep,
+                      int maxShowsPerStep,
+                      int maxTextMeasuresPerStep) {
+        this.maxBytesPerStep = maxBytesPerStep;
+        this.maxFilterPassesPerStep = maxFilterPassesPerStep;
+        this.maxNotifiesPerStep = maxNotifiesPerStep;
+        this.maxBindsPerStep = maxBindsPerStep;
+        this.maxShowsPerStep = maxShowsPerStep;
+        this.maxTextMeasuresPerStep = maxTextMeasuresPerStep;
+    }
+
+    static PerformanceBudget fromSystemProperties(String name, PerformanceBudget defaults) {
+        String prefix = "spinner.perf." + name + ".";
+        return new PerformanceBudget(
+                Long.getLong(prefix + "maxBytesPerStep", defaults.maxBytesPerStep),
+                Integer.getInteger(prefix + "maxFilterPassesPerStep", defaults.maxFilterPassesPerStep),
+                Integer.getInteger(prefix + "maxNotifiesPerStep", defaults.maxNotifiesPerStep),
+                Integer.getInteger(prefix + "maxBindsPerStep", defaults.maxBindsPerStep),
+                Integer.getInteger(prefix + "maxShowsPerStep", defaults.maxShowsPerStep),
+                Integer.getInteger(prefix + "maxTextMeasuresPerStep", defaults.maxTextMeasuresPerStep));
+    }
+}
@@ -0,0 +1,251 @@
+package com.milylg.spinner;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 流式加载：输入发生在加载完成之前，筛选结果随着条目追加逐步补全
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class SpinnerItemLoaderTest {
+
+    private static final int LINE_COUNT = 100_000;
+    private static final long LOAD_TIMEOUT_MILLIS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int loadedCount = -1;
+    private Exception loadFailure;
+    // 完成通知发出时最后一行是否已追加到适配器
+    private boolean lastItemAppendedOnFinish;
+
+
+    @Test
+    public void loadCsv_filtersWhileLoading() throws Exception {
+        EditableSpinner spinner = attachSpinner();
+        File file = writeCatalog();
+        // 读到文件的一半时暂停，检查只加载了一部分时的筛选结果
+        GatedInputStream[] gate = new GatedInputStream[1];
+        SpinnerItemLoader loader = new SpinnerItemLoader(() -> gate[0] = new GatedInputStream(
+                new FileInputStream(file), file.length() / 2), SpinnerItemLoader.CSV);
+        loader.setOnLoadListener(newLoadListener(spinner));
+        spinner.loadItems(loader);
+        spinner.getText().append("code42");
+
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+        while (gate[0] == null || !gate[0].reached.await(16, TimeUnit.MILLISECONDS)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("loading did not reach the gate in " + LOAD_TIMEOUT_MILLIS + "ms");
+            }
+            ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        }
+        // 取走并应用暂停之前发布的块
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        int partialCount = spinner.getAdapter().getCount();
+        List<Long> expected = expectedIds("code42");
+        assertTrue("partial count " + partialCount, partialCount > 0 && partialCount < expected.size());
+        assertEquals(expected.subList(0, partialCount), filterResult(spinner));
+        assertTrue(spinner.isPopupShowing());
+        assertEquals(-1, loadedCount);
+
+        gate[0].open.countDown();
+        awaitLoaded();
+        assertFilterResult(spinner, "code42");
+        assertTrue(spinner.isPopupShowing());
+    }
+
+    @Test
+    public void loadCsv_reportsParserFailure() throws IOException {
+        EditableSpinner spinner = attachSpinner();
+        IllegalStateException failure = new IllegalStateException("bad line");
+        SpinnerItemLoader loader = SpinnerItemLoader.fromFile(writeCatalog(), (line, lineNumber) -> {
+            if (lineNumber == 1000) {
+                throw failure;
+            }
+            return SpinnerItemLoader.CSV.parse(line, lineNumber);
+        });
+        loadFailure = null;
+        loader.setOnLoadListener(new SpinnerItemLoader.OnLoadListener() {
+            @Override
+            public void onLoadFinished(int itemCount) {
+                fail("load should fail");
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                loadFailure = e;
+            }
+        });
+        spinner.loadItems(loader);
+
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+        while (loadFailure == null) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("failure was not reported in " + LOAD_TIMEOUT_MILLIS + "ms");
+            }
+            ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        }
+        assertSame(failure, loadFailure);
+    }
+
+    @Test
+    public void loadCsv_filtersByExistingText() throws IOException {
+        EditableSpinner spinner = attachSpinner();
+        spinner.getText().append("code42");
+        ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        spinner.loadItems(newLoader(spinner, writeCatalog()));
+
+        awaitLoaded();
+        assertFilterResult(spinner, "code42");
+    }
+
+    private File writeCatalog() throws IOException {
+        File file = folder.newFile("catalog.csv");
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            for (int i = 0; i < LINE_COUNT; i++) {
+                writer.println((5000 + i) + ",Item No." + i + ",code" + (i % 1000));
+            }
+            writer.println("broken line");
+        }
+        return file;
+    }
+
+    private SpinnerItemLoader newLoader(EditableSpinner spinner, File file) {
+        SpinnerItemLoader loader = SpinnerItemLoader.fromFile(file, SpinnerItemLoader.CSV);
+        loader.setOnLoadListener(newLoadListener(spinner));
+        return loader;
+    }
+
+    private SpinnerItemLoader.OnLoadListener newLoadListener(EditableSpinner spinner) {
+        return new SpinnerItemLoader.OnLoadListener() {
+            @Override
+            public void onLoadFinished(int itemCount) {
+                loadedCount = itemCount;
+                lastItemAppendedOnFinish = spinner.findItemById(5000L + LINE_COUNT - 1) != null;
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                fail("load failed: " + e);
+            }
+        };
+    }
+
+    private void awaitLoaded() {
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+        while (loadedCount < 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("loading did not finish in " + LOAD_TIMEOUT_MILLIS + "ms");
+            }
+            ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(LINE_COUNT, loadedCount);
+        assertTrue("finish reported before the last chunk was appended", lastItemAppendedOnFinish);
+    }
+
+    private static void assertFilterResult(EditableSpinner spinner, String key) {
+        assertEquals(expectedIds(key), filterResult(spinner));
+    }
+
+    private static List<Long> filterResult(EditableSpinner spinner) {
+        AbsSpinnerAdapter adapter = spinner.getAdapter();
+        List<Long> actual = new ArrayList<>();
+        for (int i = 0; i < adapter.getCount(); i++) {
+            actual.add(adapter.getItemId(i));
+        }
+        return actual;
+    }
+
+    private static List<Long> expectedIds(String key) {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            if (("code" + (i % 1000)).contains(key)) {
+                expected.add(5000L + i);
+            }
+        }
+        return expected;
+    }
+
+    private EditableSpinner attachSpinner() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.getTheme().applyStyle(R.style.ThemeOverlay_Editable_Spinner, false);
+        EditableSpinner spinner = new EditableSpinner(activity);
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(spinner, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        activity.setContentView(root);
+        spinner.requestFocus();
+        return spinner;
+    }
+
+    /**
+     * 读到指定字节数后阻塞，直到open被释放
+     */
+    private static final class GatedInputStream extends FilterInputStream {
+
+        final CountDownLatch reached = new CountDownLatch(1);
+        final CountDownLatch open = new CountDownLatch(1);
+        private final long limit;
+        private long position;
+
+
+        GatedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= limit) {
+                reached.countDown();
+                try {
+                    open.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            } else {
+                len = (int) Math.min(len, limit - position);
+            }
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+    }
+}
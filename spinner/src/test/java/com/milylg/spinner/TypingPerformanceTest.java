@@ -0,0 +1,120 @@
+package com.milylg.spinner;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在JVM上回放输入过程，校验筛选结果并检查每一步的内存分配与操作次数预算，
+ * 无需模拟器即可在CI中发现性能回退
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class TypingPerformanceTest {
+
+    private static final int DATASET_SIZE = 20_000;
+
+    // 适配器会话在Robolectric 4.5.1（sdk 28，JDK 11）中实测每步最多分配约13KB，
+    // 在纯JVM（JDK 17）上约872字节；最初的正则筛选实现同样的会话每步最多分配约49MB，
+    // 16KB的预算足以区分两者。首次筛选建立关键字索引约160KB，在预热阶段完成
+    private static final PerformanceBudget ADAPTER_BUDGET = PerformanceBudget.fromSystemProperties("adapter",
+            new PerformanceBudget(16 * 1024, 1, 1, 0, 0, 0));
+
+    // 同一环境中实测：打开下拉框的一步最多分配约26MB，主要是Robolectric旧版资源模式下
+    // 每次打开重新inflate可见条目时解析样式属性的开销，下拉框显示时输入每步约80-130KB；
+    // 下拉框显示时每步绑定24次（12个可见条目各绑定两次）。每帧最多一次筛选和一次刷新由实现保证；
+    // 打开下拉框或列表高度变化时调用一次show()，在高度已达上限的列表中输入不调用；
+    // 每次打开测量24次条目文字：弹窗测量高度时以AT_MOST宽度逐个测量12个条目，
+    // 随后下拉列表新建的12个条目各测量一次（关闭时下拉列表被丢弃），之后的输入不再测量
+    private static final PerformanceBudget SPINNER_BUDGET = PerformanceBudget.fromSystemProperties("view",
+            new PerformanceBudget(32L * 1024 * 1024, 1, 1, 24, 1, 24));
+
+    private List<SpinnerItem> items;
+
+
+    @Before
+    public void setUp() {
+        items = mockItems(DATASET_SIZE);
+    }
+
+    @Test
+    public void adapterTypingSession_staysWithinBudget() {
+        new TypingSession(items, ADAPTER_BUDGET)
+                .type("No.1").backspace(4)
+                .startRecording()
+                .type("Title - No.19")
+                .backspace(3)
+                .type("42")
+                .backspace(20)
+                .openDropDown()
+                .type("zzz")
+                .assertWithinBudget();
+    }
+
+    @Test
+    public void plainLabelSession_matchesBaselineMatcher() {
+        List<SpinnerItem> plainItems = new ArrayList<>(DATASET_SIZE);
+        for (int i = 0; i < DATASET_SIZE; i++) {
+            plainItems.add(new SimpleSpinnerItem(i, "Title - No." + i));
+        }
+        new TypingSession(plainItems, ADAPTER_BUDGET)
+                .type("No.1").backspace(4)
+                .startRecording()
+                .type("Title")
+                .backspace(5)
+                .type("19")
+                .backspace(2)
+                .type("42")
+                .assertWithinBudget();
+    }
+
+    @Test
+    public void spinnerTypingSession_staysWithinBudget() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.getTheme().applyStyle(R.style.ThemeOverlay_Editable_Spinner, false);
+        EditableSpinner spinner = new EditableSpinner(activity);
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(spinner, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        activity.setContentView(root);
+
+        new TypingSession(spinner, items, SPINNER_BUDGET)
+                .type("No.1").backspace(4)
+                .startRecording()
+                .type("Title - No.19")
+                .backspace(3)
+                .type("42")
+                .closeDropDown()
+                .backspace(20)
+                .openDropDown()
+                .closeDropDown()
+                .openDropDown()
+                .closeDropDown()
+                .type("key 7")
+                .type("zzz")
+                .setTextBurst("T", "Title", "Title - No.3")
+                .assertWithinBudget();
+    }
+
+    /**
+     * 显示文本和筛选关键字不同的条目，用于验证只匹配关键字
+     */
+    private static List<SpinnerItem> mockItems(int count) {
+        List<SpinnerItem> data = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            data.add(new SimpleSpinnerItem(1000L + i, "Title - No." + i,
+                    "Title - No." + i, "key " + (i % 97)));
+        }
+        return data;
+    }
+}
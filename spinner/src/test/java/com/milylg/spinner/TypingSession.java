@@ -0,0 +1,400 @@
+package com.milylg.spinner;
+
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.text.Editable;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 在JVM上脚本化地模拟一次输入过程（输入、退格、打开/关闭下拉框），
+ * 每一步都校验筛选结果与参考实现一致，并记录该步的内存分配、适配器操作次数和弹窗show()次数。
+ * <p>
+ * 调用 {@link #startRecording()} 之前的步骤视为预热，只校验结果不计入预算。
+ * <p>
+ * 参考实现按关键字做字面量包含匹配。最初的实现是在把空白替换为'|'的显示文本上做正则匹配，
+ * 含空白的关键字永远不会命中，'.'等字符会被当作正则通配符；改为字面量匹配是有意的行为变更。
+ * 对只有显示文本的条目、且关键字不含空白和正则元字符时两者应一致，会额外与原正则实现对比。
+ */
+final class TypingSession {
+
+    private static final long FRAME_MILLIS = 16;
+    // EditableSpinner在下拉框关闭后的200ms内忽略箭头点击
+    private static final long TOGGLE_POPUP_WINDOW_INTERVAL = 250;
+    private static final Pattern REGEX_META_OR_SPACE = Pattern.compile("[\\s\\\\^$.|?*+()\\[\\]{}]");
+
+    private final EditableSpinner spinner;
+    private final CountingAdapter adapter;
+    private final List<? extends SpinnerItem> items;
+    private final PerformanceBudget budget;
+    private final List<String> violations = new ArrayList<>();
+    private final StringBuilder keyword = new StringBuilder();
+    private final boolean plainLabels;
+    private boolean recording;
+    private int recordedSteps;
+    private long maxBytes;
+    private int maxFilterPasses;
+    private int maxNotifies;
+    private int maxBinds;
+    private int maxTextMeasures;
+    private int maxShows;
+
+
+    /**
+     * 直接驱动适配器的会话，每次按键触发一次筛选
+     */
+    TypingSession(List<? extends SpinnerItem> items, PerformanceBudget budget) {
+        this(null, items, budget);
+    }
+
+    /**
+     * 驱动已attach到窗口的EditableSpinner的会话，按键通过输入框的TextWatcher触发筛选
+     */
+    TypingSession(EditableSpinner spinner, List<? extends SpinnerItem> items, PerformanceBudget budget) {
+        this.spinner = spinner;
+        this.items = items;
+        this.budget = budget;
+        this.adapter = new CountingAdapter(items);
+        this.plainLabels = hasPlainLabels(items);
+        if (spinner != null) {
+            spinner.setAdapter(adapter);
+            if (spinner.getCompoundDrawables()[2] == null) {
+                Drawable arrow = new ColorDrawable();
+                arrow.setBounds(0, 0, 48, 48);
+                spinner.setCompoundDrawables(null, null, arrow, null);
+            }
+            spinner.requestFocus();
+        }
+    }
+
+    TypingSession startRecording() {
+        recording = true;
+        return this;
+    }
+
+    TypingSession type(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            keyword.append(c);
+            step("type '" + c + "'", () -> {
+                if (spinner != null) {
+                    spinner.getText().append(c);
+                } else {
+                    adapter.hasFilterResultAbout(keyword.toString());
+                }
+            });
+            verifyFilterResult();
+        }
+        return this;
+    }
+
+    TypingSession backspace(int count) {
+        for (int i = 0; i < count && keyword.length() > 0; i++) {
+            keyword.deleteCharAt(keyword.length() - 1);
+            step("backspace", () -> {
+                if (spinner != null) {
+                    Editable text = spinner.getText();
+                    text.delete(text.length() - 1, text.length());
+                } else {
+                    adapter.hasFilterResultAbout(keyword.toString());
+                }
+            });
+            verifyFilterResult();
+        }
+        return this;
+    }
+
+    /**
+     * 同一帧内连续多次设置文本，模拟粘贴或代码批量赋值，以最后一次的内容为准
+     */
+    TypingSession setTextBurst(String... texts) {
+        keyword.setLength(0);
+        keyword.append(texts[texts.length - 1]);
+        step("setText x" + texts.length, () -> {
+            if (spinner != null) {
+                for (String text : texts) {
+                    spinner.setText(text);
+                }
+            } else {
+                adapter.hasFilterResultAbout(keyword.toString());
+            }
+        });
+        verifyFilterResult();
+        return this;
+    }
+
+    TypingSession openDropDown() {
+        if (spinner != null) {
+            ShadowLooper.idleMainLooper(TOGGLE_POPUP_WINDOW_INTERVAL, TimeUnit.MILLISECONDS);
+            step("open", () -> {
+                float x = spinner.getWidth() - 1;
+                MotionEvent up = MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, x, 0, 0);
+                spinner.onTouchEvent(up);
+                up.recycle();
+            });
+            assertEquals("drop down should be showing after open",
+                    !items.isEmpty(), spinner.isPopupShowing());
+        } else {
+            step("open", () -> adapter.hasFilterResultAbout(""));
+        }
+        assertMatches(expectedMatches(""));
+        return this;
+    }
+
+    TypingSession closeDropDown() {
+        if (spinner != null) {
+            step("close", spinner::dismissDropDown);
+            assertEquals("drop down should be hidden after close",
+                    false, spinner.isPopupShowing());
+        }
+        return this;
+    }
+
+    /**
+     * 所有记录的步骤都在预算内，否则列出每一个超出预算的步骤
+     */
+    void assertWithinBudget() {
+        if (recordedSteps == 0) {
+            fail("no steps were recorded, call startRecording() first");
+        }
+        if (!violations.isEmpty()) {
+            StringBuilder message = new StringBuilder("performance budget exceeded:");
+            for (String violation : violations) {
+                message.append("\n  ").append(violation);
+            }
+            // 附上实测的最大值，便于重新校准预算
+            message.append("\nmax per step over ").append(recordedSteps).append(" steps: ")
+                    .append(maxBytes).append(" bytes, ")
+                    .append(maxFilterPasses).append(" filter passes, ")
+                    .append(maxNotifies).append(" notifies, ")
+                    .append(maxBinds).append(" binds, ")
+                    .append(maxTextMeasures).append(" row text measures, ")
+                    .append(maxShows).append(" popup shows");
+            fail(message.toString());
+        }
+    }
+
+    private void step(String name, Runnable action) {
+        adapter.reset();
+        boolean cappedBefore = isShownListCapped();
+        int showsBefore = spinner != null ? spinner.popupShowCount : 0;
+        long allocatedBefore = allocatedBytes();
+        action.run();
+        if (spinner != null) {
+            // 把本帧内延迟执行的界面更新计入当前步骤
+            ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+        int shows = spinner != null ? spinner.popupShowCount - showsBefore : 0;
+        // 筛选前后列表高度都已达到上限时弹窗尺寸不变，不应重新show()
+        boolean capped = cappedBefore && isShownListCapped();
+        int maxShowsThisStep = capped ? 0 : budget.maxShowsPerStep;
+
+        if (!recording) {
+            return;
+        }
+        recordedSteps++;
+        maxBytes = Math.max(maxBytes, allocated);
+        maxFilterPasses = Math.max(maxFilterPasses, adapter.filterPasses);
+        maxNotifies = Math.max(maxNotifies, adapter.notifies);
+        maxBinds = Math.max(maxBinds, adapter.binds);
+        maxTextMeasures = Math.max(maxTextMeasures, adapter.textMeasures());
+        maxShows = Math.max(maxShows, shows);
+        String label = "#" + recordedSteps + " " + name + " [" + keyword + "]";
+        if (allocatedBefore >= 0 && allocated > budget.maxBytesPerStep) {
+            violations.add(label + ": allocated " + allocated
+                    + " bytes > " + budget.maxBytesPerStep);
+        }
+        if (adapter.filterPasses > budget.maxFilterPassesPerStep) {
+            violations.add(label + ": " + adapter.filterPasses
+                    + " filter passes > " + budget.maxFilterPassesPerStep);
+        }
+        if (adapter.notifies > budget.maxNotifiesPerStep) {
+            violations.add(label + ": " + adapter.notifies
+                    + " adapter notifies > " + budget.maxNotifiesPerStep);
+        }
+        if (adapter.binds > budget.maxBindsPerStep) {
+            violations.add(label + ": " + adapter.binds
+                    + " row binds > " + budget.maxBindsPerStep);
+        }
+        if (adapter.textMeasures() > budget.maxTextMeasuresPerStep) {
+            violations.add(label + ": " + adapter.textMeasures()
+                    + " row text measures > " + budget.maxTextMeasuresPerStep);
+        }
+        if (shows > maxShowsThisStep) {
+            violations.add(label + ": " + shows + " popup shows > " + maxShowsThisStep
+                    + (capped ? " (list height already capped)" : ""));
+        }
+    }
+
+    /**
+     * 下拉框正在显示，且筛选结果多于列表能显示的行数
+     */
+    private boolean isShownListCapped() {
+        if (spinner == null || !spinner.isPopupShowing() || adapter.listView == null) {
+            return false;
+        }
+        int visibleRows = adapter.listView.getChildCount();
+        return visibleRows > 0 && adapter.getCount() > visibleRows;
+    }
+
+    private void verifyFilterResult() {
+        String key = keyword.toString();
+        if (spinner != null && key.isEmpty()) {
+            // 输入框清空时只关闭下拉框，不重新筛选
+            assertEquals("drop down should be hidden for empty text",
+                    false, spinner.isPopupShowing());
+            return;
+        }
+        List<String> expected = expectedMatches(key);
+        if (plainLabels && !REGEX_META_OR_SPACE.matcher(key).find()) {
+            assertEquals("baseline regex matcher for '" + key + "'", baselineMatches(key), expected);
+        }
+        assertMatches(expected);
+        if (spinner != null) {
+            assertEquals("drop down visibility for '" + key + "'",
+                    !expected.isEmpty(), spinner.isPopupShowing());
+        }
+    }
+
+    private void assertMatches(List<String> expected) {
+        List<String> actual = new ArrayList<>(adapter.getCount());
+        for (int i = 0; i < adapter.getCount(); i++) {
+            actual.add(adapter.getSpinnerItem(i).getLabel());
+        }
+        assertEquals("filter result for '" + keyword + "'", expected, actual);
+    }
+
+    /**
+     * 参考实现：逐条检查关键字，保持数据源中的顺序
+     */
+    private List<String> expectedMatches(String key) {
+        List<String> expected = new ArrayList<>();
+        for (SpinnerItem item : items) {
+            for (String searchKey : item.getSearchKeys()) {
+                if (searchKey.contains(key)) {
+                    expected.add(item.getLabel());
+                    break;
+                }
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * 最初的筛选实现，只用于对比
+     */
+    private List<String> baselineMatches(String key) {
+        String keyPatten = "[^\\s]*" + key + "[^\\s]*";
+        List<String> matches = new ArrayList<>();
+        for (SpinnerItem item : items) {
+            if (item.getLabel().replaceAll("\\s+", "|").matches(keyPatten)) {
+                matches.add(item.getLabel());
+            }
+        }
+        return matches;
+    }
+
+    private static boolean hasPlainLabels(List<? extends SpinnerItem> items) {
+        for (SpinnerItem item : items) {
+            String[] keys = item.getSearchKeys();
+            if (keys.length != 1 || !keys[0].equals(item.getLabel())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前线程累计分配的字节数，JVM不支持时返回-1
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpotBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (hotSpotBean.isThreadAllocatedMemorySupported()
+                    && hotSpotBean.isThreadAllocatedMemoryEnabled()) {
+                return hotSpotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * 统计筛选、刷新通知、条目绑定和条目文字测量次数的适配器
+     */
+    static final class CountingAdapter extends InputTextAdapter {
+
+        int filterPasses;
+        int notifies;
+        int binds;
+        // 最近一次绑定条目的下拉列表
+        ViewGroup listView;
+        private final List<SpinnerRowView> rows = new ArrayList<>();
+        private int textMeasuresBefore;
+
+
+        CountingAdapter(List<? extends SpinnerItem> items) {
+            super(items);
+        }
+
+        void reset() {
+            filterPasses = 0;
+            notifies = 0;
+            binds = 0;
+            textMeasuresBefore = totalTextMeasures();
+        }
+
+        /**
+         * 上次reset之后条目执行TextView测量的次数
+         */
+        int textMeasures() {
+            return totalTextMeasures() - textMeasuresBefore;
+        }
+
+        private int totalTextMeasures() {
+            int count = 0;
+            for (SpinnerRowView row : rows) {
+                count += row.textMeasureCount;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean hasFilterResultAbout(String keyword) {
+            filterPasses++;
+            return super.hasFilterResultAbout(keyword);
+        }
+
+        @Override
+        public void notifyDataSetChanged() {
+            notifies++;
+            super.notifyDataSetChanged();
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            binds++;
+            listView = parent;
+            View row = super.getView(position, convertView, parent);
+            if (convertView == null && row instanceof SpinnerRowView) {
+                rows.add((SpinnerRowView) row);
+            }
+            return row;
+        }
+    }
+}